@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.util.Objects;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Immutable, interned Maven coordinates (group, artifact, classifier, extension, version).
+ * Equal coordinates share the same instance, so they are cheap to use as cache keys.
+ * The corresponding Aether {@link Artifact} is created only once per instance.
+ */
+public final class ArtifactCoordinate {
+
+    /**
+     * The default file extension
+     */
+    public static final String DEFAULT_EXTENSION = "jar";
+
+    private static final Interner<ArtifactCoordinate> INTERNER = Interners.newWeakInterner();
+
+    private static final LoadingCache<String, ArtifactCoordinate> PARSE_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build(new CacheLoader<String, ArtifactCoordinate>() {
+                @Override
+                public ArtifactCoordinate load(String coords) {
+                    return fromArtifact(new DefaultArtifact(coords));
+                }
+            });
+
+    private final String groupId;
+    private final String artifactId;
+    private final String classifier;
+    private final String extension;
+    private final String version;
+    private final int hashCode;
+
+    private volatile Artifact artifact;
+
+    private ArtifactCoordinate(String groupId, String artifactId, String classifier, String extension, String version) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.classifier = classifier;
+        this.extension = extension;
+        this.version = version;
+        this.hashCode = Objects.hash(groupId, artifactId, classifier, extension, version);
+    }
+
+    /**
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param version the version or version range
+     * @return the interned coordinate of the jar without classifier
+     */
+    public static ArtifactCoordinate of(String groupId, String artifactId, String version) {
+        return of(groupId, artifactId, "", DEFAULT_EXTENSION, version);
+    }
+
+    /**
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param classifier the classifier or <code>null</code>/empty for none
+     * @param extension the file extension or <code>null</code>/empty for "jar"
+     * @param version the version or version range
+     * @return the interned coordinate
+     */
+    public static ArtifactCoordinate of(String groupId, String artifactId, String classifier, String extension, String version) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(groupId), "groupId must not be empty");
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(artifactId), "artifactId must not be empty");
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version must not be empty");
+
+        String ext = Strings.isNullOrEmpty(extension) ? DEFAULT_EXTENSION : extension;
+        String cls = Strings.nullToEmpty(classifier);
+
+        return INTERNER.intern(new ArtifactCoordinate(groupId, artifactId, cls, ext, version));
+    }
+
+    /**
+     * @param artifact the Aether artifact
+     * @return the interned coordinate of the artifact
+     */
+    public static ArtifactCoordinate fromArtifact(Artifact artifact) {
+        return of(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
+                artifact.getExtension(), artifact.getVersion());
+    }
+
+    /**
+     * Parses coordinates in the format
+     * <code>&lt;groupId&gt;:&lt;artifactId&gt;[:&lt;extension&gt;[:&lt;classifier&gt;]]:&lt;version&gt;</code>.
+     * Results are cached, so repeated lookups of the same string are not re-parsed.
+     * @param coords the coordinate string
+     * @return the interned coordinate
+     * @throws IllegalArgumentException if the string is malformed
+     */
+    public static ArtifactCoordinate parse(String coords) {
+        Preconditions.checkArgument(coords != null, "coords must not be null");
+        try {
+            return PARSE_CACHE.getUnchecked(coords);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param newVersion the new version or version range
+     * @return the interned coordinate that differs only in the version
+     */
+    public ArtifactCoordinate withVersion(String newVersion) {
+        return of(groupId, artifactId, classifier, extension, newVersion);
+    }
+
+    /**
+     * @param newClassifier the new classifier or <code>null</code>/empty for none
+     * @return the interned coordinate that differs only in the classifier
+     */
+    public ArtifactCoordinate withClassifier(String newClassifier) {
+        return of(groupId, artifactId, newClassifier, extension, version);
+    }
+
+    /**
+     * @return the (cached) Aether representation of this coordinate
+     */
+    public Artifact toArtifact() {
+        Artifact result = artifact;
+        if (result == null) {
+            result = new DefaultArtifact(groupId, artifactId, classifier, extension, version);
+            artifact = result;
+        }
+        return result;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * @return the classifier, never <code>null</code>
+     */
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ArtifactCoordinate)) {
+            return false;
+        }
+        ArtifactCoordinate other = (ArtifactCoordinate) obj;
+        return hashCode == other.hashCode
+                && groupId.equals(other.groupId)
+                && artifactId.equals(other.artifactId)
+                && classifier.equals(other.classifier)
+                && extension.equals(other.extension)
+                && version.equals(other.version);
+    }
+
+    /**
+     * @return the coordinates in the format accepted by {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(groupId).append(':').append(artifactId).append(':').append(extension);
+        if (!classifier.isEmpty()) {
+            sb.append(':').append(classifier);
+        }
+        sb.append(':').append(version);
+        return sb.toString();
+    }
+}
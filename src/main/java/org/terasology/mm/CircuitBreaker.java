@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+/**
+ * Tracks the health of a single repository. After a number of consecutive failures,
+ * the circuit opens and the repository is skipped for a cool-down period.
+ * Afterwards, a single trial request is let through (half-open) and its result decides
+ * whether the circuit closes or opens again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The state of a circuit breaker
+     */
+    public enum State {
+
+        /**
+         * Requests pass through
+         */
+        CLOSED,
+
+        /**
+         * Requests are blocked until the cool-down period has passed
+         */
+        OPEN,
+
+        /**
+         * The cool-down period has passed - a single trial request decides
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long coolDownNanos;
+    private final Ticker ticker;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStartedAt;
+
+    /**
+     * @param failureThreshold the number of consecutive failures that opens the circuit
+     * @param coolDown the time that the circuit stays open
+     * @param unit the time unit of <code>coolDown</code>
+     */
+    public CircuitBreaker(int failureThreshold, long coolDown, TimeUnit unit) {
+        this(failureThreshold, coolDown, unit, Ticker.systemTicker());
+    }
+
+    CircuitBreaker(int failureThreshold, long coolDown, TimeUnit unit, Ticker ticker) {
+        Preconditions.checkArgument(failureThreshold >= 1, "failureThreshold must be at least 1");
+
+        this.failureThreshold = failureThreshold;
+        this.coolDownNanos = unit.toNanos(coolDown);
+        this.ticker = ticker;
+    }
+
+    /**
+     * In half-open state, only the first caller is allowed to make a trial request. If that request
+     * does not report a result within the cool-down period, the next caller gets another chance.
+     * @return true if requests to the repository should be made
+     */
+    public synchronized boolean allowRequest() {
+        State current = getState();
+        if (current == State.OPEN) {
+            return false;
+        }
+        if (current == State.HALF_OPEN) {
+            long now = ticker.read();
+            if (probeInFlight && now - probeStartedAt < coolDownNanos) {
+                return false;
+            }
+            probeInFlight = true;
+            probeStartedAt = now;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        failures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = ticker.read();
+        }
+    }
+
+    /**
+     * @return the current state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && ticker.read() - openedAt >= coolDownNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + getState() + ", " + failures + " failures]";
+    }
+}
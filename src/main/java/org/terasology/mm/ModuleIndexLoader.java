@@ -0,0 +1,240 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionScheme;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads several module indexes in parallel and merges them.
+ * If a module is listed in more than one index, a configurable precedence rule
+ * decides which entry is used. Sources that fail or exceed their timeout are skipped.
+ */
+public class ModuleIndexLoader {
+
+    /**
+     * The entry from the source with the highest priority wins
+     */
+    public static final Comparator<Candidate> SOURCE_PRIORITY = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate a, Candidate b) {
+            return Integer.compare(a.getSource().getPriority(), b.getSource().getPriority());
+        }
+    };
+
+    /**
+     * The entry with the highest version wins, the source priority decides ties
+     */
+    public static final Comparator<Candidate> NEWEST_VERSION = Ordering.from(new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate a, Candidate b) {
+            return Ordering.natural().nullsFirst().compare(parseVersion(a.getInfo()), parseVersion(b.getInfo()));
+        }
+    }).compound(SOURCE_PRIORITY);
+
+    /**
+     * The most recently pushed entry wins, the source priority decides ties
+     */
+    public static final Comparator<Candidate> LATEST_PUSH = Ordering.from(new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate a, Candidate b) {
+            return Ordering.<Date>natural().nullsFirst().compare(a.getInfo().getLastPush(), b.getInfo().getLastPush());
+        }
+    }).compound(SOURCE_PRIORITY);
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleIndexLoader.class);
+
+    private static final VersionScheme VERSION_SCHEME = new GenericVersionScheme();
+
+    private final List<ModuleIndexSource> sources = Lists.newArrayList();
+
+    private Comparator<Candidate> precedence = SOURCE_PRIORITY;
+
+    private final Map<String, Candidate> candidates = Maps.newHashMap();
+
+    private final List<ModuleIndexSource> failedSources = Lists.newArrayList();
+
+    public void addSource(ModuleIndexSource source) {
+        sources.add(source);
+    }
+
+    /**
+     * @param precedence decides which entry is used if a module is listed in more than one index.
+     * The greater entry wins, ties are resolved in favor of the source that was added first.
+     */
+    public void setPrecedence(Comparator<Candidate> precedence) {
+        this.precedence = precedence;
+    }
+
+    /**
+     * Fetches and parses all sources in parallel and merges the results.
+     * Previously loaded entries are discarded.
+     * @throws InterruptedException if the thread is interrupted while waiting for the sources
+     */
+    public void load() throws InterruptedException {
+        candidates.clear();
+        failedSources.clear();
+
+        if (sources.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(sources.size(),
+                new ThreadFactoryBuilder().setNameFormat("module-index-loader-%d").setDaemon(true).build());
+
+        try {
+            List<Future<ModuleIndexParser>> futures = Lists.newArrayList();
+            for (final ModuleIndexSource source : sources) {
+                futures.add(executor.submit(new Callable<ModuleIndexParser>() {
+                    @Override
+                    public ModuleIndexParser call() throws Exception {
+                        return new ModuleIndexParser(source.getUrl(), source.getTimeout());
+                    }
+                }));
+            }
+
+            long start = System.nanoTime();
+
+            // merge in the order the sources were added, so that ties are resolved deterministically
+            for (int i = 0; i < sources.size(); i++) {
+                ModuleIndexSource source = sources.get(i);
+                Future<ModuleIndexParser> future = futures.get(i);
+                long remaining = start + TimeUnit.MILLISECONDS.toNanos(source.getTimeout()) - System.nanoTime();
+                try {
+                    ModuleIndexParser parser = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                    merge(source, parser.getAll());
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    failedSources.add(source);
+                    logger.warn("Module index {} did not respond within {} ms", source.getId(), source.getTimeout());
+                } catch (ExecutionException e) {
+                    failedSources.add(source);
+                    logger.warn("Could not read module index {} - {}", source.getId(), e.getCause().toString());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void merge(ModuleIndexSource source, Collection<ModuleInfo> infos) {
+        for (ModuleInfo info : infos) {
+            Candidate candidate = new Candidate(source, info);
+            Candidate prev = candidates.get(info.getId());
+            if (prev == null) {
+                candidates.put(info.getId(), candidate);
+            } else if (precedence.compare(candidate, prev) > 0) {
+                candidates.put(info.getId(), candidate);
+                logger.debug("Module {} from {} replaces the one from {}", info.getId(), source.getId(), prev.getSource().getId());
+            } else {
+                logger.debug("Module {} from {} is ignored in favor of {}", info.getId(), source.getId(), prev.getSource().getId());
+            }
+        }
+    }
+
+    private static Version parseVersion(ModuleInfo info) {
+        if (info.getVersion() == null) {
+            return null;
+        }
+        try {
+            return VERSION_SCHEME.parseVersion(info.getVersion());
+        } catch (InvalidVersionSpecificationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return an unmodifiable collection
+     */
+    public Collection<ModuleInfo> getAll() {
+        return Collections.unmodifiableCollection(Collections2.transform(candidates.values(), new Function<Candidate, ModuleInfo>() {
+            @Override
+            public ModuleInfo apply(Candidate input) {
+                return input.getInfo();
+            }
+        }));
+    }
+
+    /**
+     * @return the module info or <code>null</code>
+     */
+    public ModuleInfo getById(String id) {
+        Candidate candidate = candidates.get(id);
+        return (candidate != null) ? candidate.getInfo() : null;
+    }
+
+    /**
+     * @return the source that provided the module info or <code>null</code>
+     */
+    public ModuleIndexSource getSourceOf(String id) {
+        Candidate candidate = candidates.get(id);
+        return (candidate != null) ? candidate.getSource() : null;
+    }
+
+    /**
+     * @return the sources that could not be read in the last call to {@link #load()}
+     */
+    public List<ModuleIndexSource> getFailedSources() {
+        return Collections.unmodifiableList(failedSources);
+    }
+
+    /**
+     * A module info together with the index it was read from.
+     */
+    public static final class Candidate {
+        private final ModuleIndexSource source;
+        private final ModuleInfo info;
+
+        Candidate(ModuleIndexSource source, ModuleInfo info) {
+            this.source = source;
+            this.info = info;
+        }
+
+        public ModuleIndexSource getSource() {
+            return source;
+        }
+
+        public ModuleInfo getInfo() {
+            return info;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.terasology.mm;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
@@ -48,12 +49,25 @@ public class ModuleIndexParser {
 
 
     public ModuleIndexParser(URL remoteUrl) throws IOException {
+        this(remoteUrl, 0);
+    }
+
+    /**
+     * @param remoteUrl the URL of the index
+     * @param timeout the connect and read timeout in milliseconds (0 means infinite)
+     * @throws IOException if the index cannot be read
+     */
+    public ModuleIndexParser(URL remoteUrl, int timeout) throws IOException {
 
         Gson gson = new Gson();
         JsonParser parser = new JsonParser();
         TypeAdapter<ModuleInfo> adapter = gson.getAdapter(ModuleInfo.class);
 
-        try (InputStreamReader reader = new InputStreamReader(remoteUrl.openStream(), Charset.forName("UTF-8"))) {
+        URLConnection conn = remoteUrl.openConnection();
+        conn.setConnectTimeout(timeout);
+        conn.setReadTimeout(timeout);
+
+        try (InputStreamReader reader = new InputStreamReader(conn.getInputStream(), Charset.forName("UTF-8"))) {
 
             // reading everything at once is possible with the following two lines
             // but we don't want the entire process to fail if individual modules
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.net.URL;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Describes a module index that is read by the {@link ModuleIndexLoader}.
+ */
+public final class ModuleIndexSource {
+
+    /**
+     * The default timeout in milliseconds
+     */
+    public static final int DEFAULT_TIMEOUT = 10000;
+
+    private final String id;
+    private final URL url;
+    private final int priority;
+    private final int timeout;
+
+    /**
+     * @param id the id of the source (used for logging and diagnostics)
+     * @param url the URL of the index
+     * @param priority the priority - higher values take precedence
+     */
+    public ModuleIndexSource(String id, URL url, int priority) {
+        this(id, url, priority, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param id the id of the source (used for logging and diagnostics)
+     * @param url the URL of the index
+     * @param priority the priority - higher values take precedence
+     * @param timeout the time in milliseconds after which the source is given up
+     */
+    public ModuleIndexSource(String id, URL url, int priority, int timeout) {
+        Preconditions.checkArgument(id != null, "id must not be null");
+        Preconditions.checkArgument(url != null, "url must not be null");
+        Preconditions.checkArgument(timeout > 0, "timeout must be positive");
+
+        this.id = id;
+        this.url = url;
+        this.priority = priority;
+        this.timeout = timeout;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ModuleIndexSource['" + id + "', " + url + "]";
+    }
+}
@@ -16,21 +16,33 @@
 
 package org.terasology.mm;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.ConfigurationProperties;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.ArtifactDescriptorException;
@@ -42,33 +54,91 @@ import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.resolution.VersionRequest;
+import org.eclipse.aether.resolution.VersionResolutionException;
+import org.eclipse.aether.resolution.VersionResult;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.MetadataTransferException;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.mm.aether.CircuitBreakerTransferListener;
 import org.terasology.mm.aether.LoggingRepositoryListener;
 import org.terasology.mm.aether.LoggingTransferListener;
+import org.terasology.mm.zip.HttpZipSource;
+import org.terasology.mm.zip.MappedZipSource;
+import org.terasology.mm.zip.ZipEntryReader;
 
 import com.google.common.base.Functions;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * A wrapper around eclipse Aether.
  * @author Martin Steiger
  */
-public class RepositoryConnector {
+public class RepositoryConnector implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(RepositoryConnector.class);
 
+    private static final String ALL_VERSIONS = "[0,)";
+
+    private static final String MODULE_INFO_ENTRY = "module.txt";
+
+    private static final int DEFAULT_TIMEOUT = 30000;
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    private static final long DEFAULT_COOL_DOWN_SECONDS = 60;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String CACHE_FILE_NAME = "resolution-cache.json";
+
+    /**
+     * Version lists and snapshots are re-resolved daily, similar to Aether's default update policy
+     */
+    private static final long CACHE_MAX_AGE_HOURS = 24;
+
     private final RepositorySystem system;
 
     private final List<RemoteRepository> repos = Lists.newArrayList();
 
-    private final RepositorySystemSession session;
+    private final DefaultRepositorySystemSession session;
+
+    /**
+     * Circuit breakers, mapped by repository URL (ending with a slash)
+     */
+    private final ConcurrentMap<String, CircuitBreaker> breakers = Maps.newConcurrentMap();
+
+    private final Random random = new Random();
+
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    private long coolDownMillis = TimeUnit.SECONDS.toMillis(DEFAULT_COOL_DOWN_SECONDS);
 
-    private String groupId = "org.terasology.modules";
+    private volatile int timeout = DEFAULT_TIMEOUT;
+
+    private final ResolutionCache cache;
+
+    /**
+     * Identifies the set of configured repositories in cached version lists
+     */
+    private String repositoryKey = "";
+
+    private final String groupId = "org.terasology.modules";
+
+    private final ConcurrentMap<ArtifactCoordinate, ConcurrentMap<String, Optional<String>>> entryCache = Maps.newConcurrentMap();
 
     /**
      * @param file
@@ -95,71 +165,499 @@ public class RepositoryConnector {
         });
 
         system = locator.getService(RepositorySystem.class);
-        session = createSession(system, baseDir);
+        session = createSession(system, baseDir, breakers);
+        cache = new ResolutionCache(new File(baseDir, CACHE_FILE_NAME), CACHE_MAX_AGE_HOURS, TimeUnit.HOURS);
     }
 
     public void addRepository(String id, URL url) {
         RemoteRepository repo = new RemoteRepository.Builder(id, "default", url.toExternalForm()).build();
         repos.add(repo);
+        repositoryKey = createRepositoryKey(repos);
+        breakers.put(normalizeUrl(repo.getUrl()), new CircuitBreaker(failureThreshold, coolDownMillis, TimeUnit.MILLISECONDS));
     }
 
-    public Collection<String> findAvailableVersions(String moduleId) {
+    /**
+     * @param policy the retry policy for resolution requests that fail because of transfer errors
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        this.retryPolicy = policy;
+    }
 
-        Artifact artifact = new DefaultArtifact(groupId, moduleId, "jar", "[0,)");
+    /**
+     * Configures the circuit breakers of all repositories. This resets their current state.
+     * @param threshold the number of consecutive failures after which a repository is skipped
+     * @param coolDown the time for which a failing repository is skipped
+     * @param unit the time unit of <code>coolDown</code>
+     */
+    public void setCircuitBreakerPolicy(int threshold, long coolDown, TimeUnit unit) {
+        this.failureThreshold = threshold;
+        this.coolDownMillis = unit.toMillis(coolDown);
+        for (RemoteRepository repo : repos) {
+            breakers.put(normalizeUrl(repo.getUrl()), new CircuitBreaker(failureThreshold, coolDownMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * @param repositoryId the id of the repository
+     * @return the circuit state of the repository or <code>null</code> if there is no such repository
+     */
+    public CircuitBreaker.State getCircuitState(String repositoryId) {
+        for (RemoteRepository repo : repos) {
+            if (repo.getId().equals(repositoryId)) {
+                return getBreaker(repo).getState();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param millis the connect and request timeout for remote repositories in milliseconds
+     */
+    public void setTimeout(int millis) {
+        this.timeout = millis;
+        session.setConfigProperty(ConfigurationProperties.CONNECT_TIMEOUT, millis);
+        session.setConfigProperty(ConfigurationProperties.REQUEST_TIMEOUT, millis);
+    }
+
+    /**
+     * @param moduleId the module id in the default group
+     * @return all available versions or an empty list
+     * @throws VersionRangeResolutionException if not all repositories could be queried
+     */
+    public Collection<String> findAvailableVersions(String moduleId) throws VersionRangeResolutionException {
+        return findAvailableVersions(ArtifactCoordinate.of(groupId, moduleId, ALL_VERSIONS));
+    }
+
+    /**
+     * @param coordinate the artifact coordinate - the version is interpreted as version range
+     * @return all available versions in that range or an empty list
+     * @throws VersionRangeResolutionException if the range is invalid or not all repositories could be queried,
+     * either because of transfer errors (see {@link VersionRangeResult#getExceptions()}) or because their circuit is open
+     */
+    public Collection<String> findAvailableVersions(ArtifactCoordinate coordinate) throws VersionRangeResolutionException {
+
+        List<String> cached = cache.getVersions(coordinate, repositoryKey);
+        if (cached != null) {
+            return cached;
+        }
 
         VersionRangeRequest rangeRequest = new VersionRangeRequest();
-        rangeRequest.setArtifact(artifact);
-        rangeRequest.setRepositories(repos);
+        rangeRequest.setArtifact(coordinate.toArtifact());
 
         VersionRangeResult rangeResult;
-        try {
-            rangeResult = system.resolveVersionRange(session, rangeRequest);
-        } catch (VersionRangeResolutionException e) {
-            logger.error("The requested range could not be parsed", e);
-            return Collections.emptyList();
+        for (int attempt = 1; ; attempt++) {
+            rangeRequest.setRepositories(getAvailableRepositories(rangeRequest.getRepositories()));
+            rangeResult = system.resolveVersionRange(getSession(attempt), rangeRequest);
+            if (!hasTransferErrors(rangeResult.getExceptions()) || !backoff(attempt, coordinate)) {
+                break;
+            }
+        }
+
+        List<RemoteRepository> skipped = getSkippedRepositories(rangeRequest.getRepositories());
+        if (hasTransferErrors(rangeResult.getExceptions()) || !skipped.isEmpty()) {
+            String message = "Versions of " + coordinate + " are incomplete" + describeFailures(rangeResult.getExceptions(), skipped);
+            throw new VersionRangeResolutionException(rangeResult, message);
         }
 
         // transform List<Version> to a List<String> using toString()
-        return FluentIterable.from(rangeResult.getVersions()).transform(Functions.toStringFunction()).toList();
+        List<String> versions = FluentIterable.from(rangeResult.getVersions()).transform(Functions.toStringFunction()).toList();
+
+        if (!versions.isEmpty()) {
+            cache.putVersions(coordinate, repositoryKey, versions);
+        }
+        return versions;
     }
 
     public File downloadArtifact(String moduleId, String version) throws ArtifactResolutionException {
-        Artifact artifact = new DefaultArtifact(groupId, moduleId, "jar", version);
+        return downloadArtifact(ArtifactCoordinate.of(groupId, moduleId, version));
+    }
 
-        ArtifactRequest artifactRequest = new ArtifactRequest();
-        artifactRequest.setArtifact(artifact);
-        artifactRequest.setRepositories(repos);
+    /**
+     * @param coordinate the full artifact coordinate, including classifier and extension
+     * @return the local file
+     * @throws ArtifactResolutionException if the artifact could not be resolved
+     */
+    public File downloadArtifact(ArtifactCoordinate coordinate) throws ArtifactResolutionException {
 
-        ArtifactResult artifactResult = system.resolveArtifact(session, artifactRequest);
+        File cached = cache.getArtifactFile(coordinate);
+        if (cached != null) {
+            return cached;
+        }
+
+        ArtifactRequest artifactRequest = new ArtifactRequest();
+        artifactRequest.setArtifact(coordinate.toArtifact());
+
+        ArtifactResult artifactResult;
+        for (int attempt = 1; ; attempt++) {
+            artifactRequest.setRepositories(getAvailableRepositories(artifactRequest.getRepositories()));
+            try {
+                artifactResult = system.resolveArtifact(getSession(attempt), artifactRequest);
+                break;
+            } catch (ArtifactResolutionException e) {
+                if (!hasTransferErrors(e.getResult().getExceptions()) || !backoff(attempt, coordinate)) {
+                    List<RemoteRepository> skipped = getSkippedRepositories(artifactRequest.getRepositories());
+                    if (skipped.isEmpty()) {
+                        throw e;
+                    }
+                    String message = "Could not resolve " + coordinate + describeFailures(e.getResult().getExceptions(), skipped);
+                    throw new ArtifactResolutionException(e.getResults(), message, e);
+                }
+            }
+        }
 
         Artifact resolved = artifactResult.getArtifact();
 
-        return resolved.getFile();
+        File file = resolved.getFile();
+        cache.putArtifactFile(coordinate, file);
+        return file;
     }
 
     public Collection<String> getDependencies(String moduleId, String version) throws ArtifactDescriptorException {
-        Artifact artifact = new DefaultArtifact(groupId, moduleId, "jar", version);
+        List<String> deps = Lists.newArrayList();
+        for (ArtifactCoordinate dep : getDependencies(ArtifactCoordinate.of(groupId, moduleId, version))) {
+            deps.add(dep.getArtifactId());
+        }
+        return deps;
+    }
+
+    /**
+     * @param coordinate the full artifact coordinate
+     * @return the full coordinates of all direct dependencies or an empty list if there is no descriptor
+     * @throws ArtifactDescriptorException if the descriptor could not be read or was not found,
+     * but some repositories were skipped because their circuit is open
+     */
+    public Collection<ArtifactCoordinate> getDependencies(ArtifactCoordinate coordinate) throws ArtifactDescriptorException {
+
+        List<ArtifactCoordinate> cached = cache.getDependencies(coordinate);
+        if (cached != null) {
+            return cached;
+        }
 
         ArtifactDescriptorRequest descriptorRequest = new ArtifactDescriptorRequest();
-        descriptorRequest.setArtifact(artifact);
-        descriptorRequest.setRepositories(repos);
+        descriptorRequest.setArtifact(coordinate.toArtifact());
+
+        ArtifactDescriptorResult descriptorResult;
+        for (int attempt = 1; ; attempt++) {
+            descriptorRequest.setRepositories(getAvailableRepositories(descriptorRequest.getRepositories()));
+            try {
+                descriptorResult = system.readArtifactDescriptor(getSession(attempt), descriptorRequest);
+                break;
+            } catch (ArtifactDescriptorException e) {
+                if (!hasTransferErrors(e.getResult().getExceptions()) || !backoff(attempt, coordinate)) {
+                    List<RemoteRepository> skipped = getSkippedRepositories(descriptorRequest.getRepositories());
+                    if (skipped.isEmpty()) {
+                        throw e;
+                    }
+                    String message = "Could not read descriptor of " + coordinate + describeFailures(e.getResult().getExceptions(), skipped);
+                    throw new ArtifactDescriptorException(e.getResult(), message, e);
+                }
+            }
+        }
 
-        ArtifactDescriptorResult descriptorResult = system.readArtifactDescriptor(session, descriptorRequest);
+        // a POM that is missing in all queried repositories results in an empty descriptor
+        List<RemoteRepository> skipped = getSkippedRepositories(descriptorRequest.getRepositories());
+        if (descriptorResult.getRepository() == null && !skipped.isEmpty()) {
+            String message = "Could not read descriptor of " + coordinate + describeFailures(descriptorResult.getExceptions(), skipped);
+            throw new ArtifactDescriptorException(descriptorResult, message);
+        }
 
-        List<String> deps = Lists.newArrayList();
+        List<ArtifactCoordinate> deps = Lists.newArrayList();
         for (Dependency dep : descriptorResult.getDependencies()) {
-            deps.add(dep.getArtifact().getArtifactId());
+            deps.add(ArtifactCoordinate.fromArtifact(dep.getArtifact()));
+        }
+
+        // a missing descriptor might still be published, so only real descriptors are cached
+        if (descriptorResult.getRepository() != null && descriptorResult.getExceptions().isEmpty()) {
+            cache.putDependencies(coordinate, deps);
         }
         return deps;
     }
 
-    private static RepositorySystemSession createSession(RepositorySystem system, File baseDir) {
+    /**
+     * Reads the module descriptor without downloading the entire module jar.
+     * @param moduleId the module id in the default group
+     * @param version the module version
+     * @return the content of the module.txt file or <code>null</code> if the jar doesn't contain one
+     * @throws VersionResolutionException if the version could not be resolved
+     * @throws IOException if the jar could not be read
+     */
+    public String readModuleInfo(String moduleId, String version) throws VersionResolutionException, IOException {
+        return readEntry(ArtifactCoordinate.of(groupId, moduleId, version), MODULE_INFO_ENTRY);
+    }
+
+    /**
+     * Reads a single entry (e.g. "module.txt" or "META-INF/MANIFEST.MF") from a jar artifact.
+     * If the jar is in the local repository, only its central directory and the entry are mapped into memory.
+     * Otherwise, HTTP range requests are used to fetch the same parts from the remote repository.
+     * Results are cached per resolved version.
+     * @param coordinate the full artifact coordinate
+     * @param entryName the full name of the entry in the archive
+     * @return the content of the entry (UTF-8) or <code>null</code> if there is no such entry
+     * @throws VersionResolutionException if the version could not be resolved
+     * @throws IOException if the jar could not be read
+     */
+    public String readEntry(ArtifactCoordinate coordinate, String entryName) throws VersionResolutionException, IOException {
+
+        VersionRequest versionRequest = new VersionRequest(coordinate.toArtifact(), null, null);
+        VersionResult versionResult;
+        for (int attempt = 1; ; attempt++) {
+            versionRequest.setRepositories(getAvailableRepositories(versionRequest.getRepositories()));
+            versionResult = system.resolveVersion(getSession(attempt), versionRequest);
+            if (!hasTransferErrors(versionResult.getExceptions()) || !backoff(attempt, coordinate)) {
+                break;
+            }
+        }
+        if (hasTransferErrors(versionResult.getExceptions())) {
+            String message = "Could not resolve version of " + coordinate
+                    + describeFailures(versionResult.getExceptions(), getSkippedRepositories(versionRequest.getRepositories()));
+            throw new VersionResolutionException(versionResult, message);
+        }
+
+        ArtifactCoordinate resolved = coordinate.withVersion(versionResult.getVersion());
+
+        ConcurrentMap<String, Optional<String>> entries = entryCache.get(resolved);
+        if (entries == null) {
+            entries = Maps.newConcurrentMap();
+            ConcurrentMap<String, Optional<String>> prev = entryCache.putIfAbsent(resolved, entries);
+            if (prev != null) {
+                entries = prev;
+            }
+        }
+
+        Optional<String> content = entries.get(entryName);
+        if (content == null) {
+            byte[] data = readEntryData(resolved, versionResult.getRepository(), entryName);
+            content = (data != null) ? Optional.of(new String(data, UTF_8)) : Optional.<String>absent();
+            entries.put(entryName, content);
+        }
+
+        return content.orNull();
+    }
+
+    private byte[] readEntryData(ArtifactCoordinate coordinate, ArtifactRepository origin, String entryName) throws IOException {
+        Artifact artifact = coordinate.toArtifact();
+
+        LocalArtifactRequest localRequest = new LocalArtifactRequest(artifact, repos, null);
+        LocalArtifactResult localResult = session.getLocalRepositoryManager().find(session, localRequest);
+        File file = localResult.getFile();
+        if (localResult.isAvailable() && file != null && file.isFile()) {
+            try (MappedZipSource source = new MappedZipSource(file)) {
+                return ZipEntryReader.readEntry(source, entryName);
+            }
+        }
+
+        List<RemoteRepository> candidates = Collections.emptyList();
+        for (int attempt = 1; ; attempt++) {
+
+            // try the repository that provided the version first
+            candidates = getAvailableRepositories(candidates);
+            if (origin instanceof RemoteRepository && candidates.remove(origin)) {
+                candidates.add(0, (RemoteRepository) origin);
+            }
+
+            IOException failure = null;
+            for (RemoteRepository repo : candidates) {
+                URL url = new URL(getRemoteUrl(repo, artifact));
+                CircuitBreaker breaker = getBreaker(repo);
+                try (HttpZipSource source = new HttpZipSource(url, timeout)) {
+                    byte[] data = ZipEntryReader.readEntry(source, entryName);
+                    breaker.recordSuccess();
+                    logger.debug("Read {} from {} ({} of {} bytes)", entryName, url, source.getTransferredBytes(), source.length());
+                    return data;
+                } catch (FileNotFoundException e) {
+                    breaker.recordSuccess();
+                    logger.debug("Artifact not found at {}", url);
+                } catch (IOException e) {
+                    breaker.recordFailure();
+                    logger.warn("Could not read {} from {} - {}", entryName, url, e.getMessage());
+                    failure = e;
+                }
+            }
+
+            if (failure == null || !backoff(attempt, coordinate)) {
+                List<RemoteRepository> skipped = getSkippedRepositories(candidates);
+                if (failure != null) {
+                    throw new IOException("Could not read " + entryName + " from " + coordinate
+                            + describeFailures(Collections.<Exception>singletonList(failure), skipped), failure);
+                }
+                String message = "Artifact " + coordinate + " not found in any repository";
+                if (!skipped.isEmpty()) {
+                    message += describeFailures(Collections.<Exception>emptyList(), skipped);
+                }
+                throw new FileNotFoundException(message);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending cache entries to disk. The connector can still be used afterwards.
+     * @throws IOException if the cache file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        cache.close();
+    }
+
+    private static String createRepositoryKey(List<RemoteRepository> repositories) {
+        List<String> urls = Lists.newArrayList();
+        for (RemoteRepository repo : repositories) {
+            urls.add(normalizeUrl(repo.getUrl()));
+        }
+        Collections.sort(urls);
+        return Joiner.on(' ').join(urls);
+    }
+
+    /**
+     * Repositories that were let through in the previous attempt of the same request are kept
+     * as long as their circuit is not open, so a retry does not compete for the half-open trial request.
+     * @param previous the repositories of the previous attempt (empty for the first attempt)
+     * @return all repositories with a circuit that is not open
+     */
+    private List<RemoteRepository> getAvailableRepositories(List<RemoteRepository> previous) {
+        List<RemoteRepository> available = Lists.newArrayListWithCapacity(repos.size());
+        for (RemoteRepository repo : repos) {
+            CircuitBreaker breaker = getBreaker(repo);
+            boolean allowed = previous.contains(repo) ? breaker.getState() != CircuitBreaker.State.OPEN : breaker.allowRequest();
+            if (allowed) {
+                available.add(repo);
+            } else {
+                logger.debug("Skipping repository {} - circuit is open", repo.getId());
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @param queried the repositories that were queried
+     * @return the configured repositories that were not queried, because their circuit was open
+     */
+    private List<RemoteRepository> getSkippedRepositories(List<RemoteRepository> queried) {
+        List<RemoteRepository> skipped = Lists.newArrayList(repos);
+        skipped.removeAll(queried);
+        return skipped;
+    }
+
+    private static String describeFailures(List<Exception> exceptions, List<RemoteRepository> skipped) {
+        StringBuilder sb = new StringBuilder();
+        for (Exception e : exceptions) {
+            sb.append(" - ").append(e.getMessage());
+        }
+        if (!skipped.isEmpty()) {
+            List<String> ids = Lists.newArrayList();
+            for (RemoteRepository repo : skipped) {
+                ids.add(repo.getId());
+            }
+            sb.append(" - skipped repositories because their circuit is open: ").append(Joiner.on(", ").join(ids));
+        }
+        return sb.toString();
+    }
+
+    private CircuitBreaker getBreaker(RemoteRepository repo) {
+        return breakers.get(normalizeUrl(repo.getUrl()));
+    }
+
+    /**
+     * Aether remembers which resources have been checked in a session and would not ask again.
+     * Retries therefore use a copy of the session with fresh session data.
+     */
+    private RepositorySystemSession getSession(int attempt) {
+        if (attempt == 1) {
+            return session;
+        }
+        DefaultRepositorySystemSession retrySession = new DefaultRepositorySystemSession(session);
+        retrySession.setData(new DefaultSessionData());
+        return retrySession;
+    }
+
+    /**
+     * @param attempt the number of the attempt that just failed
+     * @param coordinate the requested coordinate
+     * @return true if another attempt should be made (after waiting), false otherwise
+     */
+    private boolean backoff(int attempt, ArtifactCoordinate coordinate) {
+        RetryPolicy policy = retryPolicy;
+        if (!policy.shouldRetry(attempt)) {
+            logger.warn("Could not resolve {} after {} attempts", coordinate, attempt);
+            return false;
+        }
+
+        long delay = policy.getDelay(attempt, random);
+        logger.info("Attempt {} to resolve {} failed - retrying in {} ms", attempt, coordinate, delay);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @param exceptions the exceptions of a resolution result
+     * @return true if at least one of the exceptions is a transfer error other than a missing resource
+     */
+    private static boolean hasTransferErrors(List<Exception> exceptions) {
+        for (Exception e : exceptions) {
+            Throwable cause = e;
+            while (cause != null) {
+                if (cause instanceof ArtifactNotFoundException || cause instanceof MetadataNotFoundException) {
+                    break;
+                }
+                if (cause instanceof ArtifactTransferException || cause instanceof MetadataTransferException) {
+                    return true;
+                }
+                cause = cause.getCause();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aether's transfer resources always use repository URLs that end with a slash
+     */
+    private static String normalizeUrl(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
+
+    private static String getRemoteUrl(RemoteRepository repo, Artifact artifact) {
+        StringBuilder sb = new StringBuilder(repo.getUrl());
+        if (sb.length() == 0 || sb.charAt(sb.length() - 1) != '/') {
+            sb.append('/');
+        }
+        sb.append(artifact.getGroupId().replace('.', '/')).append('/');
+        sb.append(artifact.getArtifactId()).append('/');
+        sb.append(artifact.getBaseVersion()).append('/');
+        sb.append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            sb.append('-').append(artifact.getClassifier());
+        }
+        sb.append('.').append(artifact.getExtension());
+        return sb.toString();
+    }
+
+    /**
+     * @return the persistent cache of resolution results
+     */
+    public ResolutionCache getResolutionCache() {
+        return cache;
+    }
+
+    /**
+     * @return the group id that is used if only the module id is specified
+     */
+    public String getDefaultGroupId() {
+        return groupId;
+    }
+
+    private static DefaultRepositorySystemSession createSession(RepositorySystem system, File baseDir,
+            Map<String, CircuitBreaker> breakers) {
         DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
 
         LocalRepository localRepo = new LocalRepository(baseDir);
         session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, localRepo));
 
-        session.setTransferListener(new LoggingTransferListener());
+        session.setTransferListener(ChainedTransferListener.newInstance(
+                new LoggingTransferListener(), new CircuitBreakerTransferListener(breakers)));
         session.setRepositoryListener(new LoggingRepositoryListener());
 
         // uncomment to generate dirty trees
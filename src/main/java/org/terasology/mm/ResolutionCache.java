@@ -0,0 +1,389 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+
+/**
+ * Persists resolution results (version lists, dependency lists and artifact files)
+ * so that they survive process restarts. The cache file is loaded at construction
+ * and written atomically in the background after modifications.
+ * <p>
+ * Version lists and everything that refers to snapshots expire after a configurable time,
+ * dependencies and files of releases are considered immutable.
+ * <p>
+ * Several instances (also in different processes) can share the same file.
+ * Before writing, the content on disk is merged with the in-memory entries; the newer entry wins.
+ */
+public class ResolutionCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResolutionCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final long WRITE_DELAY_MS = 500;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("resolution-cache-writer").setDaemon(true).build());
+
+    /**
+     * File locks are held by the JVM, so instances in the same JVM must be serialized separately
+     */
+    private static final ConcurrentMap<File, Object> FILE_MONITORS = Maps.newConcurrentMap();
+
+    private final File file;
+    private final File lockFile;
+    private final File baseDir;
+    private final long maxAge;
+
+    private final ConcurrentMap<ArtifactCoordinate, CachedValue> versions = Maps.newConcurrentMap();
+    private final ConcurrentMap<ArtifactCoordinate, CachedValue> dependencies = Maps.newConcurrentMap();
+    private final ConcurrentMap<ArtifactCoordinate, CachedValue> artifacts = Maps.newConcurrentMap();
+
+    private final AtomicBoolean writePending = new AtomicBoolean();
+
+    private final Gson gson = new Gson();
+
+    /**
+     * @param file the cache file - it is created if it doesn't exist
+     * @param maxAge the time after which version lists and snapshot entries expire
+     * @param unit the time unit of <code>maxAge</code>
+     */
+    public ResolutionCache(File file, long maxAge, TimeUnit unit) {
+        this.file = file.getAbsoluteFile();
+        this.lockFile = new File(this.file.getPath() + ".lock");
+        this.baseDir = file.getAbsoluteFile().getParentFile();
+        this.maxAge = unit.toMillis(maxAge);
+
+        if (file.isFile()) {
+            load();
+        }
+    }
+
+    /**
+     * @param range the coordinate with a version range
+     * @param repositories identifies the set of repositories that was queried
+     * @return the cached versions or <code>null</code> if not cached, expired or resolved from different repositories
+     */
+    public List<String> getVersions(ArtifactCoordinate range, String repositories) {
+        CachedValue value = versions.get(range);
+        if (value == null || isExpired(value) || !repositories.equals(value.repositories)) {
+            return null;
+        }
+        return value.values;
+    }
+
+    /**
+     * @param range the coordinate with a version range
+     * @param repositories identifies the set of repositories that was queried
+     * @param list the versions that were found
+     */
+    public void putVersions(ArtifactCoordinate range, String repositories, Collection<String> list) {
+        CachedValue value = new CachedValue(list);
+        value.repositories = repositories;
+        versions.put(range, value);
+        scheduleWrite();
+    }
+
+    /**
+     * @param coordinate the artifact coordinate
+     * @return the cached direct dependencies or <code>null</code> if not cached or expired
+     */
+    public List<ArtifactCoordinate> getDependencies(ArtifactCoordinate coordinate) {
+        CachedValue value = dependencies.get(coordinate);
+        if (value == null || (isSnapshot(coordinate) && isExpired(value))) {
+            return null;
+        }
+        List<ArtifactCoordinate> deps = Lists.newArrayListWithCapacity(value.values.size());
+        for (String dep : value.values) {
+            deps.add(ArtifactCoordinate.parse(dep));
+        }
+        return deps;
+    }
+
+    public void putDependencies(ArtifactCoordinate coordinate, Collection<ArtifactCoordinate> deps) {
+        List<String> list = Lists.newArrayListWithCapacity(deps.size());
+        for (ArtifactCoordinate dep : deps) {
+            list.add(dep.toString());
+        }
+        dependencies.put(coordinate, new CachedValue(list));
+        scheduleWrite();
+    }
+
+    /**
+     * @param coordinate the artifact coordinate
+     * @return the cached file or <code>null</code> if not cached, expired or deleted in the meantime
+     */
+    public File getArtifactFile(ArtifactCoordinate coordinate) {
+        CachedValue value = artifacts.get(coordinate);
+        if (value == null || value.values.isEmpty() || (isSnapshot(coordinate) && isExpired(value))) {
+            return null;
+        }
+        File artifactFile = new File(value.values.get(0));
+        if (!artifactFile.isAbsolute()) {
+            artifactFile = new File(baseDir, value.values.get(0));
+        }
+        return artifactFile.isFile() ? artifactFile : null;
+    }
+
+    public void putArtifactFile(ArtifactCoordinate coordinate, File artifactFile) {
+        String path = artifactFile.getAbsolutePath();
+        Path base = baseDir.toPath();
+        Path absPath = artifactFile.getAbsoluteFile().toPath();
+        if (absPath.startsWith(base)) {
+            path = base.relativize(absPath).toString().replace(File.separatorChar, '/');
+        }
+        artifacts.put(coordinate, new CachedValue(ImmutableList.of(path)));
+        scheduleWrite();
+    }
+
+    /**
+     * Removes all entries, including the cache file
+     * @throws IOException if the cache file could not be deleted
+     */
+    public void clear() throws IOException {
+        synchronized (getMonitor(file)) {
+            versions.clear();
+            dependencies.clear();
+            artifacts.clear();
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Merges the entries with the content of the cache file and writes it synchronously.
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        synchronized (getMonitor(file)) {
+            try (FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = lockChannel.lock()) {
+
+                if (file.isFile()) {
+                    Entries onDisk = readFile();
+                    if (onDisk != null) {
+                        merge(onDisk);
+                    }
+                }
+
+                CacheFile content = new CacheFile();
+                content.formatVersion = FORMAT_VERSION;
+                content.versions = toStringKeys(versions);
+                content.dependencies = toStringKeys(dependencies);
+                content.artifacts = toStringKeys(artifacts);
+
+                Path tempFile = Files.createTempFile(baseDir.toPath(), file.getName(), ".tmp");
+                try {
+                    try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+                        gson.toJson(content, writer);
+                    }
+                    try {
+                        Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        }
+        logger.debug("Wrote resolution cache to {}", file);
+    }
+
+    /**
+     * Writes all pending modifications.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void scheduleWrite() {
+        if (writePending.compareAndSet(false, true)) {
+            WRITER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // reset first, so that modifications during the write trigger another one
+                    writePending.set(false);
+                    try {
+                        flush();
+                    } catch (IOException e) {
+                        logger.warn("Could not write resolution cache {} - {}", file, e.getMessage());
+                    }
+                }
+            }, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load() {
+        Entries content = readFile();
+        if (content != null) {
+            merge(content);
+            logger.debug("Loaded {} version lists, {} descriptors and {} artifacts from {}",
+                    versions.size(), dependencies.size(), artifacts.size(), file);
+        }
+    }
+
+    /**
+     * @return the content of the cache file or <code>null</code> if it cannot be read
+     */
+    private Entries readFile() {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+            CacheFile content = gson.fromJson(reader, CacheFile.class);
+            if (content == null || content.formatVersion != FORMAT_VERSION) {
+                logger.info("Ignoring resolution cache {} with unknown format", file);
+                return null;
+            }
+            // parse all keys first, so that an invalid file doesn't leave partial results
+            Entries entries = new Entries();
+            entries.versions = fromStringKeys(content.versions);
+            entries.dependencies = fromStringKeys(content.dependencies);
+            entries.artifacts = fromStringKeys(content.artifacts);
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read resolution cache {} - {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void merge(Entries content) {
+        mergeNewer(content.versions, versions);
+        mergeNewer(content.dependencies, dependencies);
+        mergeNewer(content.artifacts, artifacts);
+    }
+
+    private static void mergeNewer(Map<ArtifactCoordinate, CachedValue> source, ConcurrentMap<ArtifactCoordinate, CachedValue> target) {
+        for (Entry<ArtifactCoordinate, CachedValue> entry : source.entrySet()) {
+            CachedValue value = entry.getValue();
+            CachedValue prev = target.putIfAbsent(entry.getKey(), value);
+            while (prev != null && prev.timestamp < value.timestamp && !target.replace(entry.getKey(), prev, value)) {
+                prev = target.putIfAbsent(entry.getKey(), value);
+            }
+        }
+    }
+
+    private static Object getMonitor(File file) {
+        Object monitor = new Object();
+        Object prev = FILE_MONITORS.putIfAbsent(file, monitor);
+        return (prev != null) ? prev : monitor;
+    }
+
+    private static Map<String, CachedValue> toStringKeys(Map<ArtifactCoordinate, CachedValue> map) {
+        Map<String, CachedValue> result = Maps.newLinkedHashMap();
+        for (Entry<ArtifactCoordinate, CachedValue> entry : map.entrySet()) {
+            result.put(entry.getKey().toString(), entry.getValue());
+        }
+        return result;
+    }
+
+    private static Map<ArtifactCoordinate, CachedValue> fromStringKeys(Map<String, CachedValue> source) {
+        Map<ArtifactCoordinate, CachedValue> result = Maps.newHashMap();
+        if (source == null) {
+            return result;
+        }
+        for (Entry<String, CachedValue> entry : source.entrySet()) {
+            CachedValue value = entry.getValue();
+            if (value != null && value.values != null) {
+                value.values = ImmutableList.copyOf(value.values);
+                result.put(ArtifactCoordinate.parse(entry.getKey()), value);
+            }
+        }
+        return result;
+    }
+
+    private boolean isExpired(CachedValue value) {
+        return System.currentTimeMillis() - value.timestamp > maxAge;
+    }
+
+    private static boolean isSnapshot(ArtifactCoordinate coordinate) {
+        return coordinate.toArtifact().isSnapshot();
+    }
+
+    /**
+     * A list of values with the time they were resolved
+     */
+    private static class CachedValue {
+        private long timestamp;
+        private List<String> values;
+
+        /**
+         * Identifies the queried repositories - only used for version lists
+         */
+        private String repositories;
+
+        CachedValue() {
+            // the default constructor is required for gson
+        }
+
+        CachedValue(Collection<String> values) {
+            this.timestamp = System.currentTimeMillis();
+            this.values = ImmutableList.copyOf(values);
+        }
+    }
+
+    /**
+     * The json structure of the cache file
+     */
+    private static class CacheFile {
+        private int formatVersion;
+        private Map<String, CachedValue> versions;
+        private Map<String, CachedValue> dependencies;
+        private Map<String, CachedValue> artifacts;
+    }
+
+    /**
+     * The parsed content of the cache file
+     */
+    private static class Entries {
+        private Map<ArtifactCoordinate, CachedValue> versions;
+        private Map<ArtifactCoordinate, CachedValue> dependencies;
+        private Map<ArtifactCoordinate, CachedValue> artifacts;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Defines how often and with which delay failed resolution attempts are repeated.
+ * The delay grows exponentially and is randomized (jittered) so that clients do not retry in lockstep.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Never retry
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, TimeUnit.MILLISECONDS);
+
+    /**
+     * Three attempts with delays of roughly 0.5 and 1 seconds
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 500, 5000, TimeUnit.MILLISECONDS);
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+
+    /**
+     * @param maxAttempts the total number of attempts (including the first one)
+     * @param initialDelay the delay before the first retry
+     * @param maxDelay the upper bound for the delay
+     * @param unit the time unit of the delays
+     */
+    public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay, TimeUnit unit) {
+        Preconditions.checkArgument(maxAttempts >= 1, "maxAttempts must be at least 1");
+        Preconditions.checkArgument(initialDelay >= 0 && maxDelay >= initialDelay, "invalid delay");
+
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = unit.toMillis(initialDelay);
+        this.maxDelay = unit.toMillis(maxDelay);
+    }
+
+    /**
+     * @param attempt the number of the attempt that just failed (starting at 1)
+     * @return true if another attempt should be made
+     */
+    public boolean shouldRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Computes the delay using "equal jitter": half of the exponential delay
+     * is fixed, the other half is random.
+     * @param attempt the number of the attempt that just failed (starting at 1)
+     * @param random the random number generator to use
+     * @return the delay in milliseconds
+     */
+    public long getDelay(int attempt, Random random) {
+        int shift = Math.min(attempt - 1, 30);
+        long delay = Math.min(maxDelay, initialDelay << shift);
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy[" + maxAttempts + " attempts, " + initialDelay + "-" + maxDelay + "ms]";
+    }
+}
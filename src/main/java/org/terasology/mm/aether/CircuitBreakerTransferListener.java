@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.aether;
+
+import java.util.Map;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.mm.CircuitBreaker;
+
+/**
+ * A transfer listener that reports successful and failed transfers to the
+ * circuit breaker of the corresponding repository. Missing resources
+ * are not considered failures, since the repository answered properly.
+ */
+public class CircuitBreakerTransferListener extends AbstractTransferListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerTransferListener.class);
+
+    private final Map<String, CircuitBreaker> breakers;
+
+    /**
+     * @param breakers the circuit breakers, mapped by repository URL (ending with a slash)
+     */
+    public CircuitBreakerTransferListener(Map<String, CircuitBreaker> breakers) {
+        this.breakers = breakers;
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        CircuitBreaker breaker = breakers.get(event.getResource().getRepositoryUrl());
+        if (breaker != null) {
+            breaker.recordSuccess();
+        }
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        CircuitBreaker breaker = breakers.get(event.getResource().getRepositoryUrl());
+        if (breaker == null) {
+            return;
+        }
+
+        Exception e = event.getException();
+        if (e instanceof MetadataNotFoundException || e instanceof ArtifactNotFoundException) {
+            breaker.recordSuccess();
+        } else {
+            breaker.recordFailure();
+            logger.debug("Recorded failure for {} - {}", event.getResource().getRepositoryUrl(), breaker);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.zip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link ZipSource} that uses HTTP range requests to fetch only the required parts of a remote archive.
+ * If the server does not support range requests, the entire archive is downloaded once.
+ */
+public class HttpZipSource implements ZipSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpZipSource.class);
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+)");
+
+    private final URL url;
+    private final int timeout;
+
+    private long length = -1;
+    private long transferred;
+
+    /**
+     * The entire archive - only used if the server ignores range requests
+     */
+    private ByteBuffer full;
+
+    /**
+     * @param url the URL of the zip archive
+     * @param timeout the connect and read timeout in milliseconds
+     */
+    public HttpZipSource(URL url, int timeout) {
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ByteBuffer readTail(int maxLength) throws IOException {
+        ByteBuffer tail = request("bytes=-" + maxLength);
+        if (full != null) {
+            int tailLength = Math.min(maxLength, full.capacity());
+            return slice(full, full.capacity() - tailLength, tailLength);
+        }
+        return tail;
+    }
+
+    @Override
+    public ByteBuffer read(long offset, int len) throws IOException {
+        if (length < 0) {
+            throw new IllegalStateException("readTail() must be called first");
+        }
+        long end = Math.min(offset + len, length);
+        if (full != null) {
+            return slice(full, (int) offset, (int) (end - offset));
+        }
+        if (end <= offset) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer data = request("bytes=" + offset + "-" + (end - 1));
+        if (full != null) {
+            return slice(full, (int) offset, (int) (end - offset));
+        }
+        return data;
+    }
+
+    private ByteBuffer request(String range) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(timeout);
+        conn.setReadTimeout(timeout);
+        conn.setRequestProperty("Range", range);
+
+        try {
+            int code = conn.getResponseCode();
+            try (InputStream is = conn.getInputStream()) {
+                byte[] data = ByteStreams.toByteArray(is);
+                transferred += data.length;
+                ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+                if (code == HttpURLConnection.HTTP_PARTIAL) {
+                    String contentRange = conn.getHeaderField("Content-Range");
+                    Matcher matcher = (contentRange != null) ? CONTENT_RANGE.matcher(contentRange) : null;
+                    if (matcher == null || !matcher.matches()) {
+                        throw new IOException("Invalid Content-Range header: " + contentRange);
+                    }
+                    length = Long.parseLong(matcher.group(3));
+                    logger.debug("Read {} bytes ({}) from {}", data.length, range, url);
+                    return buffer;
+                }
+
+                if (code == HttpURLConnection.HTTP_OK) {
+                    logger.debug("Server does not support range requests - downloaded {} entirely", url);
+                    full = buffer;
+                    length = data.length;
+                    return buffer;
+                }
+
+                throw new IOException("Unexpected response code " + code + " from " + url);
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int len) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(Math.min(offset, dup.capacity()));
+        dup.limit(Math.min(offset + len, dup.capacity()));
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the number of bytes that were downloaded so far
+     */
+    public long getTransferredBytes() {
+        return transferred;
+    }
+
+    @Override
+    public void close() {
+        full = null;
+    }
+}
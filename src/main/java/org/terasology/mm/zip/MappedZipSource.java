@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.zip;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link ZipSource} for local files that memory-maps the archive,
+ * so only the pages of the central directory and the requested entry are actually read.
+ */
+public class MappedZipSource implements ZipSource {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * @param file the zip archive
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedZipSource(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            buffer = channel.map(MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public ByteBuffer readTail(int maxLength) {
+        int length = Math.min(maxLength, buffer.capacity());
+        return read(buffer.capacity() - length, length);
+    }
+
+    @Override
+    public ByteBuffer read(long offset, int length) {
+        int start = (int) Math.min(offset, buffer.capacity());
+        int end = (int) Math.min(offset + length, buffer.capacity());
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(start);
+        dup.limit(end);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public long length() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.zip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Extracts single entries from a zip archive by reading the central directory only,
+ * instead of scanning or downloading the entire archive.
+ * ZIP64 archives are not supported.
+ */
+public final class ZipEntryReader {
+
+    private static final int END_SIG = 0x06054b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+
+    private static final int END_HEADER = 22;
+    private static final int CEN_HEADER = 46;
+    private static final int LOC_HEADER = 30;
+
+    /**
+     * The end record is at most 22 bytes + 64KB comment
+     */
+    private static final int MAX_TAIL = END_HEADER + 0xFFFF;
+
+    /**
+     * Extra bytes that are read together with the local header to avoid a second round trip
+     * if the local extra field is larger than the central one.
+     */
+    private static final int LOC_SLACK = 256;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ZipEntryReader() {
+        // no instances
+    }
+
+    /**
+     * @param source the archive
+     * @param entryName the full name of the entry, e.g. "module.txt"
+     * @return the uncompressed content or <code>null</code> if there is no such entry
+     * @throws IOException if the archive cannot be read or is malformed
+     */
+    public static byte[] readEntry(ZipSource source, String entryName) throws IOException {
+        ByteBuffer tail = source.readTail(MAX_TAIL);
+        long tailStart = source.length() - tail.remaining();
+
+        int endPos = findEndRecord(tail);
+        if (endPos < 0) {
+            throw new IOException("End of central directory not found");
+        }
+
+        long dirSize = tail.getInt(endPos + 12) & 0xFFFFFFFFL;
+        long dirOffset = tail.getInt(endPos + 16) & 0xFFFFFFFFL;
+        if (dirSize == 0xFFFFFFFFL || dirOffset == 0xFFFFFFFFL) {
+            throw new IOException("ZIP64 archives are not supported");
+        }
+        if (dirOffset + dirSize > source.length() || dirSize > Integer.MAX_VALUE) {
+            throw new IOException("Invalid central directory location");
+        }
+
+        ByteBuffer dir;
+        if (dirOffset >= tailStart) {
+            dir = slice(tail, (int) (dirOffset - tailStart), (int) dirSize);
+        } else {
+            dir = source.read(dirOffset, (int) dirSize);
+        }
+
+        byte[] name = entryName.getBytes(UTF_8);
+        Entry entry = findEntry(dir, name);
+        if (entry == null) {
+            return null;
+        }
+
+        return readData(source, entry);
+    }
+
+    private static byte[] readData(ZipSource source, Entry entry) throws IOException {
+        int guess = LOC_HEADER + entry.nameLength + entry.extraLength + entry.compressedSize + LOC_SLACK;
+        ByteBuffer loc = source.read(entry.localOffset, guess);
+        if (loc.remaining() < LOC_HEADER || loc.getInt(0) != LOC_SIG) {
+            throw new IOException("Invalid local file header");
+        }
+
+        int dataStart = LOC_HEADER + (loc.getShort(26) & 0xFFFF) + (loc.getShort(28) & 0xFFFF);
+        ByteBuffer data;
+        if (dataStart + entry.compressedSize <= loc.remaining()) {
+            data = slice(loc, dataStart, entry.compressedSize);
+        } else {
+            data = source.read(entry.localOffset + dataStart, entry.compressedSize);
+        }
+        if (data.remaining() < entry.compressedSize) {
+            throw new IOException("Unexpected end of archive");
+        }
+
+        byte[] compressed = new byte[entry.compressedSize];
+        data.get(compressed);
+
+        switch (entry.method) {
+            case STORED:
+                return compressed;
+            case DEFLATED:
+                return inflate(compressed, entry.size);
+            default:
+                throw new IOException("Unsupported compression method " + entry.method);
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int size) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] result = new byte[size];
+            int len = 0;
+            while (len < size) {
+                int count = inflater.inflate(result, len, size - len);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += count;
+            }
+            if (len != size) {
+                throw new IOException("Inflated size does not match: " + len + " instead of " + size);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int findEndRecord(ByteBuffer tail) {
+        for (int pos = tail.limit() - END_HEADER; pos >= 0; pos--) {
+            if (tail.getInt(pos) == END_SIG) {
+                int commentLength = tail.getShort(pos + 20) & 0xFFFF;
+                if (pos + END_HEADER + commentLength == tail.limit()) {
+                    return pos;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Entry findEntry(ByteBuffer dir, byte[] name) throws IOException {
+        int pos = 0;
+        while (pos + CEN_HEADER <= dir.limit()) {
+            if (dir.getInt(pos) != CEN_SIG) {
+                throw new IOException("Invalid central directory header");
+            }
+            int nameLength = dir.getShort(pos + 28) & 0xFFFF;
+            int extraLength = dir.getShort(pos + 30) & 0xFFFF;
+            int commentLength = dir.getShort(pos + 32) & 0xFFFF;
+
+            if (nameLength == name.length && nameEquals(dir, pos + CEN_HEADER, name)) {
+                long compressedSize = dir.getInt(pos + 20) & 0xFFFFFFFFL;
+                long size = dir.getInt(pos + 24) & 0xFFFFFFFFL;
+                long offset = dir.getInt(pos + 42) & 0xFFFFFFFFL;
+                if (compressedSize >= Integer.MAX_VALUE || size >= Integer.MAX_VALUE || offset == 0xFFFFFFFFL) {
+                    throw new IOException("ZIP64 entries are not supported");
+                }
+                Entry entry = new Entry();
+                entry.method = dir.getShort(pos + 10) & 0xFFFF;
+                entry.compressedSize = (int) compressedSize;
+                entry.size = (int) size;
+                entry.localOffset = offset;
+                entry.nameLength = nameLength;
+                entry.extraLength = extraLength;
+                return entry;
+            }
+
+            pos += CEN_HEADER + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private static boolean nameEquals(ByteBuffer dir, int pos, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (dir.get(pos + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.limit(offset + length);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static class Entry {
+        private int method;
+        private int compressedSize;
+        private int size;
+        private long localOffset;
+        private int nameLength;
+        private int extraLength;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Random access to the bytes of a zip archive.
+ */
+public interface ZipSource extends Closeable {
+
+    /**
+     * Reads the last bytes of the archive. This must be the first call,
+     * as the total length might only be known afterwards.
+     * @param maxLength the maximum number of bytes to read
+     * @return a little-endian buffer that contains the tail of the archive
+     * @throws IOException if the data cannot be read
+     */
+    ByteBuffer readTail(int maxLength) throws IOException;
+
+    /**
+     * @param offset the offset in the archive
+     * @param length the number of bytes to read
+     * @return a little-endian buffer of the requested range (might be shorter at the end of the archive)
+     * @throws IOException if the data cannot be read
+     */
+    ByteBuffer read(long offset, int length) throws IOException;
+
+    /**
+     * @return the total length of the archive in bytes
+     */
+    long length();
+}
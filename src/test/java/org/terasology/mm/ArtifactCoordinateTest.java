@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ArtifactCoordinate} class.
+ */
+public class ArtifactCoordinateTest {
+
+    @Test
+    public void internTest() {
+        ArtifactCoordinate a = ArtifactCoordinate.of("org.terasology.engine", "engine", "0.50.0");
+        ArtifactCoordinate b = ArtifactCoordinate.of("org.terasology.engine", "engine", null, "jar", "0.50.0");
+
+        Assert.assertSame(a, b);
+        Assert.assertSame(a.toArtifact(), b.toArtifact());
+    }
+
+    @Test
+    public void classifierTest() {
+        ArtifactCoordinate jar = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.1.0");
+        ArtifactCoordinate meta = jar.withClassifier("metadata");
+
+        Assert.assertNotEquals(jar, meta);
+        Assert.assertSame(jar, meta.withClassifier(""));
+
+        Artifact artifact = meta.toArtifact();
+        Assert.assertEquals("metadata", artifact.getClassifier());
+        Assert.assertEquals("jar", artifact.getExtension());
+    }
+
+    @Test
+    public void parseTest() {
+        ArtifactCoordinate coord = ArtifactCoordinate.parse("org.terasology.modules:Sample:zip:sources:0.1.0");
+
+        Assert.assertEquals("org.terasology.modules", coord.getGroupId());
+        Assert.assertEquals("Sample", coord.getArtifactId());
+        Assert.assertEquals("zip", coord.getExtension());
+        Assert.assertEquals("sources", coord.getClassifier());
+        Assert.assertEquals("0.1.0", coord.getVersion());
+
+        Assert.assertSame(coord, ArtifactCoordinate.parse(coord.toString()));
+        Assert.assertSame(coord, ArtifactCoordinate.of("org.terasology.modules", "Sample", "sources", "zip", "0.1.0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidTest() {
+        ArtifactCoordinate.parse("Sample");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.terasology.mm.CircuitBreaker.State;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Tests the {@link CircuitBreaker} and {@link RetryPolicy} classes.
+ */
+public class CircuitBreakerTest {
+
+    private long now;
+
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return now;
+        }
+    };
+
+    @Test
+    public void openAfterThresholdTest() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 10, TimeUnit.SECONDS, ticker);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        Assert.assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        Assert.assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+        Assert.assertEquals(State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void coolDownTest() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 10, TimeUnit.SECONDS, ticker);
+
+        breaker.recordFailure();
+        Assert.assertEquals(State.OPEN, breaker.getState());
+
+        now += TimeUnit.SECONDS.toNanos(10);
+        Assert.assertEquals(State.HALF_OPEN, breaker.getState());
+        Assert.assertTrue(breaker.allowRequest());
+
+        // a single failure in half-open state opens the circuit again
+        breaker.recordFailure();
+        Assert.assertEquals(State.OPEN, breaker.getState());
+
+        now += TimeUnit.SECONDS.toNanos(10);
+        breaker.recordSuccess();
+        Assert.assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void singleProbeTest() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 10, TimeUnit.SECONDS, ticker);
+
+        breaker.recordFailure();
+        now += TimeUnit.SECONDS.toNanos(10);
+
+        // only one trial request per half-open period
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertFalse(breaker.allowRequest());
+        Assert.assertEquals(State.HALF_OPEN, breaker.getState());
+
+        // a probe that never reports back is replaced after another cool-down period
+        now += TimeUnit.SECONDS.toNanos(10);
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void retryDelayTest() {
+        RetryPolicy policy = new RetryPolicy(4, 100, 300, TimeUnit.MILLISECONDS);
+        Random random = new Random(1234);
+
+        Assert.assertTrue(policy.shouldRetry(3));
+        Assert.assertFalse(policy.shouldRetry(4));
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.getDelay(1, random);
+            long second = policy.getDelay(2, random);
+            long third = policy.getDelay(3, random);
+            Assert.assertTrue(first >= 50 && first <= 100);
+            Assert.assertTrue(second >= 100 && second <= 200);
+            Assert.assertTrue(third >= 150 && third <= 300);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the {@link ModuleIndexLoader} class.
+ */
+public class ModuleIndexLoaderTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final URL mini = ModuleIndexLoaderTest.class.getResource("/index_mini.json");
+    private final URL extra = ModuleIndexLoaderTest.class.getResource("/index_extra.json");
+
+    @Test
+    public void sourcePriorityTest() throws InterruptedException {
+        ModuleIndexLoader loader = new ModuleIndexLoader();
+        loader.addSource(new ModuleIndexSource("official", mini, 10));
+        loader.addSource(new ModuleIndexSource("community", extra, 0));
+        loader.load();
+
+        Assert.assertEquals("0.1.0", loader.getById("Sample").getVersion());
+        Assert.assertEquals("official", loader.getSourceOf("Sample").getId());
+        Assert.assertEquals("community", loader.getSourceOf("CommunityBlocks").getId());
+        Assert.assertEquals(4, loader.getAll().size());
+        Assert.assertTrue(loader.getFailedSources().isEmpty());
+    }
+
+    @Test
+    public void newestVersionTest() throws InterruptedException {
+        ModuleIndexLoader loader = new ModuleIndexLoader();
+        loader.addSource(new ModuleIndexSource("official", mini, 10));
+        loader.addSource(new ModuleIndexSource("community", extra, 0));
+        loader.setPrecedence(ModuleIndexLoader.NEWEST_VERSION);
+        loader.load();
+
+        Assert.assertEquals("0.2.0", loader.getById("Sample").getVersion());
+        Assert.assertEquals("community", loader.getSourceOf("Sample").getId());
+    }
+
+    @Test
+    public void tieTest() throws InterruptedException {
+        ModuleIndexLoader loader = new ModuleIndexLoader();
+        loader.addSource(new ModuleIndexSource("community", extra, 0));
+        loader.addSource(new ModuleIndexSource("official", mini, 0));
+        loader.load();
+
+        // equal priority - the source that was added first wins
+        Assert.assertEquals("community", loader.getSourceOf("Sample").getId());
+    }
+
+    @Test
+    public void faultIsolationTest() throws IOException, InterruptedException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        try {
+            URL slow = new URL("http://localhost:" + server.getAddress().getPort() + "/index.json");
+            URL missing = new File(testFolder.getRoot(), "missing.json").toURI().toURL();
+
+            ModuleIndexLoader loader = new ModuleIndexLoader();
+            loader.addSource(new ModuleIndexSource("slow", slow, 0, 200));
+            loader.addSource(new ModuleIndexSource("missing", missing, 0));
+            loader.addSource(new ModuleIndexSource("official", mini, 0));
+
+            long start = System.currentTimeMillis();
+            loader.load();
+            long duration = System.currentTimeMillis() - start;
+
+            Assert.assertTrue("Loading took " + duration + " ms", duration < 1500);
+            Assert.assertEquals(2, loader.getFailedSources().size());
+            Assert.assertNotNull(loader.getById("Sample"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests that {@link RepositoryConnector} persists resolution results across restarts.
+ */
+public class RepositoryConnectorCacheTest {
+
+    private static final String MODULE_PATH = "/repo/org/terasology/modules/Sample/";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final ArtifactCoordinate release = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.1.0");
+    private final ArtifactCoordinate unpublished = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.2.0");
+
+    private StubRepositoryServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = new StubRepositoryServer();
+        server.put(MODULE_PATH + "0.1.0/Sample-0.1.0.pom", StubRepositoryServer.createPom(
+                "org.terasology.modules", "Sample", "0.1.0", "org.terasology.modules:Core:0.1.0"));
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    @Test
+    public void warmRestartTest() throws ArtifactDescriptorException, IOException {
+        try (RepositoryConnector connector = createConnector()) {
+            Assert.assertEquals(Collections.singletonList("Core"),
+                    Lists.newArrayList(connector.getDependencies("Sample", "0.1.0")));
+        }
+
+        // without the persistent cache, Aether would download the POM again
+        File localPom = new File(testFolder.getRoot(), "org/terasology/modules/Sample/0.1.0/Sample-0.1.0.pom");
+        Assert.assertTrue(localPom.delete());
+
+        server.clearRequests();
+        try (RepositoryConnector connector = createConnector()) {
+            Assert.assertNotNull(connector.getResolutionCache().getDependencies(release));
+            Assert.assertEquals(Collections.singletonList("Core"),
+                    Lists.newArrayList(connector.getDependencies("Sample", "0.1.0")));
+        }
+
+        for (String path : server.getRequests()) {
+            Assert.assertFalse(path, path.endsWith(".pom"));
+        }
+    }
+
+    @Test
+    public void missingDescriptorTest() throws ArtifactDescriptorException, IOException {
+        try (RepositoryConnector connector = createConnector()) {
+            Assert.assertTrue(connector.getDependencies("Sample", "0.2.0").isEmpty());
+            Assert.assertNull(connector.getResolutionCache().getDependencies(unpublished));
+        }
+
+        try (RepositoryConnector connector = createConnector()) {
+            Assert.assertNull(connector.getResolutionCache().getDependencies(unpublished));
+        }
+    }
+
+    private RepositoryConnector createConnector() {
+        RepositoryConnector connector = new RepositoryConnector(testFolder.getRoot());
+        connector.addRepository("stub", server.getUrl("/repo"));
+        return connector;
+    }
+}
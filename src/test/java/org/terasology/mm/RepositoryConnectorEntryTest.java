@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.eclipse.aether.resolution.VersionResolutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests reading single jar entries through {@link RepositoryConnector} against a local HTTP stub.
+ */
+public class RepositoryConnectorEntryTest {
+
+    private static final String MODULE_PATH = "/repo/org/terasology/modules/Sample/";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private StubRepositoryServer server;
+    private RepositoryConnector connector;
+
+    @Before
+    public void setup() throws IOException {
+        server = new StubRepositoryServer();
+        server.put(MODULE_PATH + "0.1.0/Sample-0.1.0.jar",
+                StubRepositoryServer.createJar("{ \"id\" : \"Sample\", \"version\" : \"0.1.0\" }"));
+        server.put(MODULE_PATH + "0.1.0/Sample-0.1.0-metadata.jar", StubRepositoryServer.createJar("metadata"));
+        server.putSnapshot(MODULE_PATH, "org.terasology.modules", "Sample", "0.2.0-SNAPSHOT", "20141201.100000",
+                StubRepositoryServer.createJar("snapshot"));
+
+        connector = new RepositoryConnector(testFolder.getRoot());
+        connector.addRepository("empty", server.getUrl("/empty"));
+        connector.addRepository("stub", server.getUrl("/repo"));
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    @Test
+    public void readRemoteTest() throws VersionResolutionException, IOException {
+        String moduleTxt = connector.readModuleInfo("Sample", "0.1.0");
+
+        Assert.assertEquals("{ \"id\" : \"Sample\", \"version\" : \"0.1.0\" }", moduleTxt);
+        Assert.assertTrue(server.getRequests().contains(MODULE_PATH + "0.1.0/Sample-0.1.0.jar"));
+
+        // the second call is served from the cache
+        server.clearRequests();
+        Assert.assertEquals(moduleTxt, connector.readModuleInfo("Sample", "0.1.0"));
+        Assert.assertTrue(server.getRequests().isEmpty());
+    }
+
+    @Test
+    public void missingEntryTest() throws VersionResolutionException, IOException {
+        ArtifactCoordinate coord = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.1.0");
+
+        Assert.assertNull(connector.readEntry(coord, "missing.txt"));
+
+        server.clearRequests();
+        Assert.assertNull(connector.readEntry(coord, "missing.txt"));
+        Assert.assertTrue(server.getRequests().isEmpty());
+    }
+
+    @Test
+    public void classifierTest() throws VersionResolutionException, IOException {
+        ArtifactCoordinate coord = ArtifactCoordinate.of("org.terasology.modules", "Sample", "metadata", "jar", "0.1.0");
+
+        Assert.assertEquals("metadata", connector.readEntry(coord, "module.txt"));
+        Assert.assertTrue(server.getRequests().contains(MODULE_PATH + "0.1.0/Sample-0.1.0-metadata.jar"));
+    }
+
+    @Test
+    public void snapshotTest() throws VersionResolutionException, IOException {
+        Assert.assertEquals("snapshot", connector.readModuleInfo("Sample", "0.2.0-SNAPSHOT"));
+
+        // the directory uses the base version, the file name the timestamped version
+        Assert.assertTrue(server.getRequests().contains(MODULE_PATH + "0.2.0-SNAPSHOT/Sample-0.2.0-20141201.100000-1.jar"));
+
+        // the repository that provided the snapshot version is asked first
+        for (String path : server.getRequests()) {
+            Assert.assertFalse(path, path.startsWith("/empty/") && path.endsWith(".jar"));
+        }
+    }
+
+    @Test
+    public void readLocalTest() throws VersionResolutionException, IOException {
+        File dir = new File(testFolder.getRoot(), "org/terasology/modules/Local/0.1.0");
+        Assert.assertTrue(dir.mkdirs());
+        Files.write(new File(dir, "Local-0.1.0.jar").toPath(), StubRepositoryServer.createJar("local"));
+
+        Assert.assertEquals("local", connector.readModuleInfo("Local", "0.1.0"));
+        Assert.assertTrue(server.getRequests().isEmpty());
+    }
+}
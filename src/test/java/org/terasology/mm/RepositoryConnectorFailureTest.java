@@ -0,0 +1,206 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionResolutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.mm.CircuitBreaker.State;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests retries and circuit breaking of {@link RepositoryConnector} against a local
+ * HTTP stub that injects errors and latency.
+ */
+public class RepositoryConnectorFailureTest {
+
+    private static final String MODULE_PATH = "/repo/org/terasology/modules/Sample/";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private StubRepositoryServer server;
+    private RepositoryConnector connector;
+
+    @Before
+    public void setup() throws IOException {
+        server = new StubRepositoryServer();
+        server.putVersions(MODULE_PATH, "org.terasology.modules", "Sample", "0.1.0", "0.2.0");
+        server.put(MODULE_PATH + "0.1.0/Sample-0.1.0.jar", StubRepositoryServer.createJar("release"));
+        server.put(MODULE_PATH + "0.1.0/Sample-0.1.0.pom", StubRepositoryServer.createPom(
+                "org.terasology.modules", "Sample", "0.1.0", "org.terasology.modules:Core:0.1.0"));
+        server.putSnapshot(MODULE_PATH, "org.terasology.modules", "Sample", "0.3.0-SNAPSHOT", "20141201.100000",
+                StubRepositoryServer.createJar("snapshot"));
+
+        connector = new RepositoryConnector(testFolder.getRoot());
+        connector.addRepository("stub", server.getUrl("/repo"));
+        connector.setRetryPolicy(new RetryPolicy(3, 10, 50, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    @Test
+    public void retryTest() throws VersionRangeResolutionException {
+        server.injectFailures(2);
+
+        Collection<String> versions = connector.findAvailableVersions("Sample");
+
+        Assert.assertEquals(Arrays.asList("0.1.0", "0.2.0"), Lists.newArrayList(versions));
+        Assert.assertEquals(3, server.getFileRequestCount());
+        Assert.assertEquals(State.CLOSED, connector.getCircuitState("stub"));
+    }
+
+    @Test
+    public void retriesExhaustedTest() {
+        server.injectFailures(Integer.MAX_VALUE);
+        connector.setCircuitBreakerPolicy(10, 1, TimeUnit.HOURS);
+
+        try {
+            connector.findAvailableVersions("Sample");
+            Assert.fail("Expected a VersionRangeResolutionException");
+        } catch (VersionRangeResolutionException e) {
+            Assert.assertFalse(e.getResult().getExceptions().isEmpty());
+        }
+        Assert.assertEquals(3, server.getFileRequestCount());
+    }
+
+    @Test
+    public void circuitOpensTest() {
+        server.injectFailures(Integer.MAX_VALUE);
+        connector.setCircuitBreakerPolicy(3, 1, TimeUnit.HOURS);
+
+        assertVersionsFail();
+        Assert.assertEquals(State.OPEN, connector.getCircuitState("stub"));
+
+        // the repository is skipped now
+        int requests = server.getFileRequestCount();
+        String message = assertVersionsFail();
+        Assert.assertTrue(message, message.contains("circuit is open: stub"));
+        Assert.assertEquals(requests, server.getFileRequestCount());
+    }
+
+    @Test
+    public void skippedArtifactTest() {
+        server.injectFailures(Integer.MAX_VALUE);
+        connector.setRetryPolicy(RetryPolicy.NONE);
+        connector.setCircuitBreakerPolicy(1, 1, TimeUnit.HOURS);
+
+        assertVersionsFail();
+        Assert.assertEquals(State.OPEN, connector.getCircuitState("stub"));
+
+        try {
+            connector.downloadArtifact("Sample", "0.1.0");
+            Assert.fail("Expected an ArtifactResolutionException");
+        } catch (ArtifactResolutionException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("circuit is open: stub"));
+        }
+    }
+
+    @Test
+    public void skippedDescriptorTest() {
+        connector.addRepository("empty", server.getUrl("/empty"));
+        server.injectFailures(Integer.MAX_VALUE);
+        connector.setRetryPolicy(RetryPolicy.NONE);
+        connector.setCircuitBreakerPolicy(1, 1, TimeUnit.HOURS);
+
+        assertVersionsFail();
+        Assert.assertEquals(State.OPEN, connector.getCircuitState("stub"));
+        Assert.assertEquals(State.CLOSED, connector.getCircuitState("empty"));
+
+        // only "empty" is queried and does not have the POM
+        try {
+            connector.getDependencies("Sample", "0.1.0");
+            Assert.fail("Expected an ArtifactDescriptorException");
+        } catch (ArtifactDescriptorException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("circuit is open: stub"));
+        }
+    }
+
+    @Test
+    public void latencyTest() {
+        server.setLatency(2000);
+        connector.setTimeout(200);
+        connector.setRetryPolicy(RetryPolicy.NONE);
+        connector.setCircuitBreakerPolicy(1, 1, TimeUnit.HOURS);
+
+        assertVersionsFail();
+        Assert.assertEquals(State.OPEN, connector.getCircuitState("stub"));
+    }
+
+    @Test
+    public void halfOpenTest() throws InterruptedException, VersionRangeResolutionException {
+        server.injectFailures(1);
+        connector.setRetryPolicy(RetryPolicy.NONE);
+        connector.setCircuitBreakerPolicy(1, 100, TimeUnit.MILLISECONDS);
+
+        assertVersionsFail();
+        Assert.assertEquals(State.OPEN, connector.getCircuitState("stub"));
+
+        Thread.sleep(150);
+        Assert.assertEquals(State.HALF_OPEN, connector.getCircuitState("stub"));
+
+        connector.setRetryPolicy(new RetryPolicy(2, 10, 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, connector.findAvailableVersions("Sample").size());
+        Assert.assertEquals(State.CLOSED, connector.getCircuitState("stub"));
+    }
+
+    @Test
+    public void readEntryRetryTest() throws VersionResolutionException, IOException {
+        server.injectFailures(1);
+
+        // the first request for the jar fails
+        Assert.assertEquals("release", connector.readModuleInfo("Sample", "0.1.0"));
+        Assert.assertEquals(State.CLOSED, connector.getCircuitState("stub"));
+    }
+
+    @Test
+    public void snapshotVersionRetryTest() throws VersionResolutionException, IOException {
+        server.injectFailures(2);
+
+        // the first two requests for the snapshot metadata fail
+        Assert.assertEquals("snapshot", connector.readModuleInfo("Sample", "0.3.0-SNAPSHOT"));
+    }
+
+    /**
+     * @return the message of the expected exception
+     */
+    private String assertVersionsFail() {
+        try {
+            connector.findAvailableVersions("Sample");
+        } catch (VersionRangeResolutionException e) {
+            return e.getMessage();
+        }
+        Assert.fail("Expected a VersionRangeResolutionException");
+        return null;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.eclipse.aether.resolution.ArtifactDescriptorException;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.hamcrest.core.IsCollectionContaining;
 import org.junit.Assert;
 import org.junit.Before;
@@ -54,7 +55,7 @@ public class RepositoryConnectorTest {
     }
 
     @Test
-    public void findAvailableVersionsTest() {
+    public void findAvailableVersionsTest() throws VersionRangeResolutionException {
 
         Collection<String> versions = connector.findAvailableVersions("Sample");
 
@@ -65,7 +66,7 @@ public class RepositoryConnectorTest {
     }
 
     @Test
-    public void reuseSessionTest() {
+    public void reuseSessionTest() throws VersionRangeResolutionException {
 
         connector.findAvailableVersions("Sample");
         Collection<String> versions = connector.findAvailableVersions("Sample");
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link ResolutionCache} class.
+ */
+public class ResolutionCacheTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private static final String REPOS = "http://localhost/repo/";
+
+    private File cacheFile;
+
+    private final ArtifactCoordinate range = ArtifactCoordinate.of("org.terasology.modules", "Sample", "[0,)");
+    private final ArtifactCoordinate release = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.1.0");
+    private final ArtifactCoordinate snapshot = ArtifactCoordinate.of("org.terasology.modules", "Sample", "0.2.0-SNAPSHOT");
+    private final ArtifactCoordinate engine = ArtifactCoordinate.of("org.terasology.engine", "engine", "0.50.0");
+
+    @Before
+    public void setup() {
+        cacheFile = new File(testFolder.getRoot(), "cache.json");
+    }
+
+    @Test
+    public void reloadTest() throws IOException {
+        File jar = testFolder.newFile("Sample-0.1.0.jar");
+
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        cache.putVersions(range, REPOS, Arrays.asList("0.1.0", "0.2.0-SNAPSHOT"));
+        cache.putDependencies(release, Collections.singletonList(engine));
+        cache.putDependencies(snapshot, Collections.<ArtifactCoordinate>emptyList());
+        cache.putArtifactFile(release, jar);
+        cache.flush();
+
+        ResolutionCache reloaded = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        Assert.assertEquals(Arrays.asList("0.1.0", "0.2.0-SNAPSHOT"), reloaded.getVersions(range, REPOS));
+        Assert.assertEquals(Collections.singletonList(engine), reloaded.getDependencies(release));
+        Assert.assertEquals(Collections.emptyList(), reloaded.getDependencies(snapshot));
+        Assert.assertEquals(jar.getAbsoluteFile(), reloaded.getArtifactFile(release).getAbsoluteFile());
+    }
+
+    @Test
+    public void expiryTest() throws IOException, InterruptedException {
+        ResolutionCache cache = new ResolutionCache(cacheFile, 0, TimeUnit.MILLISECONDS);
+        cache.putVersions(range, REPOS, Collections.singletonList("0.1.0"));
+        cache.putDependencies(release, Collections.singletonList(engine));
+        cache.putDependencies(snapshot, Collections.singletonList(engine));
+
+        Thread.sleep(5);
+
+        Assert.assertNull(cache.getVersions(range, REPOS));
+        Assert.assertNull(cache.getDependencies(snapshot));
+        Assert.assertEquals(Collections.singletonList(engine), cache.getDependencies(release));
+    }
+
+    @Test
+    public void deletedArtifactTest() throws IOException {
+        File jar = testFolder.newFile("Sample-0.1.0.jar");
+
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        cache.putArtifactFile(release, jar);
+        Assert.assertNotNull(cache.getArtifactFile(release));
+
+        Assert.assertTrue(jar.delete());
+        Assert.assertNull(cache.getArtifactFile(release));
+    }
+
+    @Test
+    public void closeTest() throws IOException {
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        cache.putVersions(range, REPOS, Collections.singletonList("0.1.0"));
+        cache.close();
+
+        ResolutionCache reloaded = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        Assert.assertEquals(Collections.singletonList("0.1.0"), reloaded.getVersions(range, REPOS));
+    }
+
+    @Test
+    public void repositoriesTest() {
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        cache.putVersions(range, REPOS, Collections.singletonList("0.1.0"));
+
+        Assert.assertNull(cache.getVersions(range, REPOS + " http://localhost/other/"));
+    }
+
+    @Test
+    public void sharedFileTest() throws IOException {
+        ResolutionCache first = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        ResolutionCache second = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+
+        first.putDependencies(release, Collections.singletonList(engine));
+        second.putDependencies(snapshot, Collections.<ArtifactCoordinate>emptyList());
+        first.close();
+        second.close();
+
+        // the second instance merged the entries of the first one
+        ResolutionCache reloaded = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        Assert.assertEquals(Collections.singletonList(engine), reloaded.getDependencies(release));
+        Assert.assertEquals(Collections.emptyList(), reloaded.getDependencies(snapshot));
+
+        File[] leftovers = testFolder.getRoot().listFiles();
+        for (File leftover : leftovers) {
+            Assert.assertFalse(leftover.getName(), leftover.getName().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void backgroundWriteTest() throws InterruptedException {
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        cache.putVersions(range, REPOS, Collections.singletonList("0.1.0"));
+
+        for (int i = 0; i < 100 && !cacheFile.isFile(); i++) {
+            Thread.sleep(50);
+        }
+
+        ResolutionCache reloaded = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        Assert.assertEquals(Collections.singletonList("0.1.0"), reloaded.getVersions(range, REPOS));
+    }
+
+    @Test
+    public void corruptFileTest() throws IOException {
+        Files.write(cacheFile.toPath(), "{ not json".getBytes(Charset.forName("UTF-8")));
+
+        ResolutionCache cache = new ResolutionCache(cacheFile, 1, TimeUnit.DAYS);
+        List<String> versions = cache.getVersions(range, REPOS);
+        Assert.assertNull(versions);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that serves files like a Maven repository. It supports range requests
+ * and can inject errors and latency. All paths that have not been added return 404.
+ */
+public class StubRepositoryServer implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private final HttpServer server;
+
+    private final Map<String, byte[]> files = Maps.newConcurrentMap();
+    private final List<String> requests = Lists.newCopyOnWriteArrayList();
+
+    private final AtomicInteger fileRequests = new AtomicInteger();
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+    private volatile int latency;
+    private volatile boolean rangeSupport = true;
+
+    /**
+     * Starts the server on a free local port
+     * @throws IOException if the server cannot be started
+     */
+    public StubRepositoryServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new StubHandler());
+        server.start();
+    }
+
+    /**
+     * @param path the absolute path, e.g. "/repo"
+     * @return the URL of that path on this server
+     */
+    public URL getUrl(String path) {
+        try {
+            return new URL("http://localhost:" + server.getAddress().getPort() + path);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @param path the absolute path of the file
+     * @param data the content of the file
+     */
+    public void put(String path, byte[] data) {
+        files.put(path, data);
+    }
+
+    /**
+     * @param path the absolute path of the file
+     * @param data the content of the file (UTF-8)
+     */
+    public void put(String path, String data) {
+        put(path, data.getBytes(UTF_8));
+    }
+
+    /**
+     * Adds the version list of an artifact.
+     * @param artifactPath the directory of the artifact, e.g. "/repo/org/terasology/modules/Sample/"
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param versions the available versions
+     */
+    public void putVersions(String artifactPath, String groupId, String artifactId, String... versions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<metadata><groupId>").append(groupId).append("</groupId>");
+        sb.append("<artifactId>").append(artifactId).append("</artifactId><versioning><versions>");
+        for (String version : versions) {
+            sb.append("<version>").append(version).append("</version>");
+        }
+        sb.append("</versions></versioning></metadata>");
+        put(artifactPath + "maven-metadata.xml", sb.toString());
+    }
+
+    /**
+     * Adds a snapshot jar together with the metadata that maps the base version to the timestamped version.
+     * @param artifactPath the directory of the artifact, e.g. "/repo/org/terasology/modules/Sample/"
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param baseVersion the snapshot version, e.g. "0.2.0-SNAPSHOT"
+     * @param timestamp the deployment time in the format "yyyyMMdd.HHmmss"
+     * @param jar the content of the jar
+     * @return the timestamped version
+     */
+    public String putSnapshot(String artifactPath, String groupId, String artifactId, String baseVersion,
+            String timestamp, byte[] jar) {
+        String version = baseVersion.replace("SNAPSHOT", timestamp + "-1");
+        String updated = timestamp.replace(".", "");
+
+        String metadata = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<metadata><groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId>"
+                + "<version>" + baseVersion + "</version><versioning>"
+                + "<snapshot><timestamp>" + timestamp + "</timestamp><buildNumber>1</buildNumber></snapshot>"
+                + "<lastUpdated>" + updated + "</lastUpdated><snapshotVersions><snapshotVersion>"
+                + "<extension>jar</extension><value>" + version + "</value><updated>" + updated + "</updated>"
+                + "</snapshotVersion></snapshotVersions></versioning></metadata>";
+
+        String dir = artifactPath + baseVersion + "/";
+        put(dir + "maven-metadata.xml", metadata);
+        put(dir + artifactId + "-" + version + ".jar", jar);
+        return version;
+    }
+
+    /**
+     * @return the paths of all requests in the order of arrival
+     */
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests for existing files, including those that failed deliberately
+     */
+    public int getFileRequestCount() {
+        return fileRequests.get();
+    }
+
+    /**
+     * Clears the list of requests and resets the request counter.
+     */
+    public void clearRequests() {
+        requests.clear();
+        fileRequests.set(0);
+    }
+
+    /**
+     * @param count the number of upcoming requests for existing files that respond with 500
+     */
+    public void injectFailures(int count) {
+        failuresToInject.set(count);
+    }
+
+    /**
+     * @param millis the delay before requests for existing files are answered
+     */
+    public void setLatency(int millis) {
+        this.latency = millis;
+    }
+
+    /**
+     * @param rangeSupport false to ignore range requests and always respond with the entire file
+     */
+    public void setRangeSupport(boolean rangeSupport) {
+        this.rangeSupport = rangeSupport;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * @param moduleTxt the content of the module.txt entry
+     * @return a jar that contains only module.txt
+     * @throws IOException if the jar cannot be created
+     */
+    public static byte[] createJar(String moduleTxt) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bos)) {
+            zos.putNextEntry(new ZipEntry("module.txt"));
+            zos.write(moduleTxt.getBytes(UTF_8));
+            zos.closeEntry();
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param version the version
+     * @param dependencies the direct dependencies in the format <code>groupId:artifactId:version</code>
+     * @return a minimal POM
+     */
+    public static String createPom(String groupId, String artifactId, String version, String... dependencies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<project><modelVersion>4.0.0</modelVersion>");
+        sb.append("<groupId>").append(groupId).append("</groupId>");
+        sb.append("<artifactId>").append(artifactId).append("</artifactId>");
+        sb.append("<version>").append(version).append("</version><dependencies>");
+        for (String dep : dependencies) {
+            String[] parts = dep.split(":");
+            sb.append("<dependency><groupId>").append(parts[0]).append("</groupId>");
+            sb.append("<artifactId>").append(parts[1]).append("</artifactId>");
+            sb.append("<version>").append(parts[2]).append("</version></dependency>");
+        }
+        sb.append("</dependencies></project>");
+        return sb.toString();
+    }
+
+    private class StubHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                requests.add(path);
+
+                byte[] data = files.get(path);
+                if (data == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+
+                fileRequests.incrementAndGet();
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+
+                if (failuresToInject.getAndDecrement() > 0) {
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                Matcher matcher = (range != null) ? RANGE.matcher(range) : null;
+
+                int start = 0;
+                int end = data.length - 1;
+                int code = 200;
+
+                if (rangeSupport && matcher != null && matcher.matches()) {
+                    if (matcher.group(1).isEmpty()) {
+                        start = Math.max(0, data.length - Integer.parseInt(matcher.group(2)));
+                    } else {
+                        start = Integer.parseInt(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                        }
+                    }
+                    code = 206;
+                    exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+                }
+
+                int len = end - start + 1;
+                exchange.sendResponseHeaders(code, len);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(data, start, len);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
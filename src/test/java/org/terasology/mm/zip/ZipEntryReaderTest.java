@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.mm.zip;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.mm.StubRepositoryServer;
+
+/**
+ * Tests the {@link ZipEntryReader} class with local and remote archives.
+ */
+public class ZipEntryReaderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String MODULE_TXT = "{ \"id\" : \"Sample\", \"version\" : \"0.1.0\" }";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private File jar;
+    private byte[] jarData;
+    private StubRepositoryServer server;
+
+    @Before
+    public void setup() throws IOException {
+        jar = testFolder.newFile("Sample-0.1.0.jar");
+
+        byte[] assets = new byte[1024 * 1024];
+        new Random(1234).nextBytes(assets);     // incompressible
+
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jar))) {
+            zos.putNextEntry(new ZipEntry("assets/textures/big.png"));
+            zos.write(assets);
+            zos.closeEntry();
+
+            zos.putNextEntry(new ZipEntry("module.txt"));
+            zos.write(MODULE_TXT.getBytes(UTF_8));
+            zos.closeEntry();
+
+            byte[] manifest = "Manifest-Version: 1.0\r\n".getBytes(UTF_8);
+            ZipEntry stored = new ZipEntry("META-INF/MANIFEST.MF");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(manifest.length);
+            CRC32 crc = new CRC32();
+            crc.update(manifest);
+            stored.setCrc(crc.getValue());
+            zos.putNextEntry(stored);
+            zos.write(manifest);
+            zos.closeEntry();
+
+            zos.setComment("a comment to move the end record");
+        }
+
+        jarData = Files.readAllBytes(jar.toPath());
+
+        server = new StubRepositoryServer();
+        server.put("/Sample-0.1.0.jar", jarData);
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    @Test
+    public void readLocalTest() throws IOException {
+        try (MappedZipSource source = new MappedZipSource(jar)) {
+            Assert.assertEquals(MODULE_TXT, new String(ZipEntryReader.readEntry(source, "module.txt"), UTF_8));
+            Assert.assertEquals("Manifest-Version: 1.0\r\n",
+                    new String(ZipEntryReader.readEntry(source, "META-INF/MANIFEST.MF"), UTF_8));
+            Assert.assertNull(ZipEntryReader.readEntry(source, "missing.txt"));
+        }
+    }
+
+    @Test
+    public void readRemoteTest() throws IOException {
+        try (HttpZipSource source = new HttpZipSource(getUrl(), 5000)) {
+            byte[] data = ZipEntryReader.readEntry(source, "module.txt");
+
+            Assert.assertEquals(MODULE_TXT, new String(data, UTF_8));
+            Assert.assertEquals(jarData.length, source.length());
+            Assert.assertTrue(source.getTransferredBytes() < jarData.length / 10);
+        }
+    }
+
+    @Test
+    public void readRemoteWithoutRangeSupportTest() throws IOException {
+        server.setRangeSupport(false);
+        try (HttpZipSource source = new HttpZipSource(getUrl(), 5000)) {
+            byte[] data = ZipEntryReader.readEntry(source, "module.txt");
+
+            Assert.assertEquals(MODULE_TXT, new String(data, UTF_8));
+            Assert.assertEquals(jarData.length, source.getTransferredBytes());
+        }
+    }
+
+    private URL getUrl() {
+        return server.getUrl("/Sample-0.1.0.jar");
+    }
+}